@@ -1,8 +1,15 @@
 package controllers;
 
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
+import utils.Archive;
+import utils.BlockContainer;
+import utils.Codec;
+import utils.CompressionCache;
 import utils.FileManager;
 import utils.Huffman;
 
@@ -10,8 +17,10 @@ import utils.Huffman;
  * The main class from which the program is run.
  * 
  * Here the user is about to interact with the program via the menu,
- * which allows for Compression of a file, Decompression of a file
- * and exit.
+ * which allows for Compression of a file, Decompression of a file,
+ * appending a file to a compressed file, packing files into an archive,
+ * extracting members from an archive, comparing the codecs on a file,
+ * configuring the compression cache and exit.
  * 
  * @author Oleksandr Kononov
  * @version 20-04-2017
@@ -21,7 +30,13 @@ public class Main {
 	
 	private Scanner in;
 	private FileManager fm;
+	private CompressionCache cache; //Cache of compressed outputs, null if turned off
+	private Archive archive;
+	private BlockContainer container;
 	private final int MAGIC_NUMBER = 0x0CADD099; //Magic number for the Huffman Encoding
+	private final long CACHE_MEMORY_BYTES = 16*1024*1024; //Compressed bytes the cache keeps in memory
+	private final long CACHE_DISK_BYTES = 64*1024*1024; //Compressed bytes the cache keeps on disk
+	private final String CACHE_DIRECTORY = "data/cache"; //Directory of the cache's disk tier
 	
 	public static void main(String[] args){
 		new Main().run();
@@ -30,6 +45,9 @@ public class Main {
 	public void run(){
 		in = new Scanner(System.in);
 		fm = new FileManager();
+		cache = new CompressionCache(CACHE_MEMORY_BYTES); //The disk tier is opt in, see configureCache()
+		archive = new Archive(fm,MAGIC_NUMBER);
+		container = new BlockContainer(MAGIC_NUMBER,BlockContainer.DEFAULT_BLOCK_SIZE);
 		runMenu();
 	}
 	
@@ -48,6 +66,21 @@ public class Main {
 			case 2:
 				decompressFile();
 				break;
+			case 3:
+				archiveFiles();
+				break;
+			case 4:
+				extractArchive();
+				break;
+			case 5:
+				appendFile();
+				break;
+			case 6:
+				benchmarkCodecs();
+				break;
+			case 7:
+				configureCache();
+				break;
 			default:
 				System.out.println("INVALID COMMAND!");
 				break;
@@ -65,6 +98,11 @@ public class Main {
 	private int showMenu(){
 		System.out.println("1) Select a file to compress");
 		System.out.println("2) Select a file to decompress");
+		System.out.println("3) Select files to archive");
+		System.out.println("4) Select an archive to extract");
+		System.out.println("5) Select a file to append to a compressed file");
+		System.out.println("6) Select a file to benchmark the codecs on");
+		System.out.println("7) Configure the compression cache");
 		System.out.println("0) EXIT");
 		System.out.print(">> ");
 		try{
@@ -89,13 +127,23 @@ public class Main {
 		
 		/*
 		 * -Take in user selected file
-		 * -Compress/Encode the String
+		 * -Reuse the cached encoding if this data was compressed before,
+		 * otherwise split the String into blocks, transform and Compress/Encode them
 		 * -Write the byte array to a file
 		 */
 		String uncompressedString = fm.readFileToString(true);
 		if(uncompressedString == null) return;
-		Huffman huffman = new Huffman(uncompressedString,true);
-		byte[] compressedEncoding = huffman.getEncoding(uncompressedString,MAGIC_NUMBER);
+		String cacheKey = (cache == null)? null : CompressionCache.key(uncompressedString,container.getParams());
+		byte[] compressedEncoding = (cache == null)? null : cache.get(cacheKey);
+		if(compressedEncoding == null){
+			try{
+				compressedEncoding = container.compress(uncompressedString);
+			}catch(IllegalStateException e){
+				System.out.println("ERROR! "+e.getMessage());
+				return;
+			}
+			if(cache != null) cache.put(cacheKey,compressedEncoding);
+		}
 		fm.writeFileToBytes(compressedEncoding);
 		
 		//Prepare statistics for the user
@@ -109,6 +157,78 @@ public class Main {
 		System.out.println("Uncompressed Bytes Size : "+uncompressedSize);
 		System.out.println("Compressed Bytes Size : "+compressedSize);
 		System.out.println("Compression Percentage : "+((uncompressedSize<compressedSize)?"Na":compressionPercentage+"%"));
+		if(cache != null){
+			System.out.println("Cache Hits/Disk Hits/Misses : "+cache.getHits()+"/"+cache.getDiskHits()+"/"+cache.getMisses());
+		}
+	}
+	
+	/**
+	 * Let the user turn the compression cache off, keep it in memory only,
+	 * or also write every compressed output through to the disk tier.
+	 */
+	private void configureCache(){
+		System.out.println("0) No cache");
+		System.out.println("1) Cache in memory");
+		System.out.println("2) Cache in memory and on disk ("+CACHE_DIRECTORY+")");
+		System.out.print(">> ");
+		int choice;
+		try{
+			choice = in.nextInt();
+		}catch(Exception e){
+			choice = -1;
+		}
+		
+		switch(choice){
+		case 0:
+			cache = null;
+			System.out.println("Compression cache turned off");
+			break;
+		case 1:
+			cache = new CompressionCache(CACHE_MEMORY_BYTES);
+			System.out.println("Caching compressed files in memory");
+			break;
+		case 2:
+			cache = new CompressionCache(CACHE_MEMORY_BYTES,CACHE_DIRECTORY,CACHE_DISK_BYTES);
+			System.out.println("Caching compressed files in memory and in "+CACHE_DIRECTORY);
+			break;
+		default:
+			System.out.println("INVALID COMMAND!");
+			break;
+		}
+	}
+	
+	/**
+	 * Carry out the steps to compress a file of the users choice and append it as new
+	 * blocks to a compressed file, without recompressing the data already in it.
+	 */
+	private void appendFile(){
+		String uncompressedString = fm.readFileToString(true);
+		if(uncompressedString == null) return;
+		String compressedPath = fm.getCompressedFile();
+		if(compressedPath == null) return;
+		
+		long start = System.currentTimeMillis(); //Start time for the append process
+		int appended;
+		try{
+			appended = container.append(compressedPath,uncompressedString);
+		}catch(IOException e){
+			System.out.println("ERROR APPENDING TO FILE!\n");
+			e.printStackTrace();
+			return;
+		}catch(IllegalStateException e){
+			System.out.println("ERROR! "+e.getMessage());
+			return;
+		}
+		if(appended < 0){
+			System.out.println("ERROR! Only block compressed files of a known version can be appended to!");
+			return;
+		}
+		long finish = System.currentTimeMillis(); //Finish time for the append process
+		
+		//Output statistics for the user
+		System.out.println("Appended "+appended+" blocks to "+compressedPath);
+		System.out.println("Time taken (miliseconds): "+(finish-start));
+		System.out.println("Uncompressed Bytes Size : "+uncompressedString.length());
 	}
 	
 	/**
@@ -121,20 +241,26 @@ public class Main {
 		start = System.currentTimeMillis();
 		
 		//Take in compressed/encoded data from user selected file
-		String compressedString = fm.readFileToString(false);
-		if(compressedString == null) return;
+		byte[] compressedBytes = fm.readFileToBytes();
+		if(compressedBytes == null) return;
 		
-		//Verify the compressed file with magic number
-		String hexCheck = Integer.toBinaryString(MAGIC_NUMBER);
-		if(!compressedString.substring(0,hexCheck.length()).equals(hexCheck)){
+		/*
+		 * Verify the compressed file with magic number and Decompress/Decode data,
+		 * files from before the block container hold a single Huffman encoding
+		 */
+		String uncompressedString;
+		boolean recovered = false; //Whether an interrupted append cut the data short
+		if(BlockContainer.isContainer(compressedBytes)){
+			BlockContainer.Decompressed decompressed = container.decompress(compressedBytes);
+			uncompressedString = (decompressed == null)? null : decompressed.data;
+			recovered = decompressed != null && decompressed.recovered;
+		}else{
+			uncompressedString = Huffman.decode(FileManager.bytesToBinaryString(compressedBytes),MAGIC_NUMBER);
+		}
+		if(uncompressedString == null){
 			System.out.println("ERROR! Not a huffman compressed file!");
 			return;
 		}
-		int indexValue = Integer.parseInt(compressedString.substring(28,41),2);
-		
-		// Decompress/Decode data
-		Huffman huffman = new Huffman(compressedString.substring(41,41+indexValue),false);
-		String uncompressedString = huffman.getDecoding(compressedString.substring(41+indexValue));
 		
 		//Prepare statistics for the user
 		finish = System.currentTimeMillis();
@@ -142,5 +268,127 @@ public class Main {
 		//Output decoded data and statistics for the user
 		System.out.println("\n"+uncompressedString);
 		System.out.println("Time taken (miliseconds): "+(finish-start));
+		if(recovered){
+			System.out.println("WARNING! An append to this file was interrupted, only the blocks before it were recovered!");
+		}
+	}
+	
+	/**
+	 * Carry out the steps to pack the files of the users choice into one archive.
+	 */
+	private void archiveFiles(){
+		long start = System.currentTimeMillis(); //Start time for the archiving process
+		
+		String[] paths = fm.getFilesToArchive();
+		if(paths == null) return;
+		
+		String archivePath = "data/archive."+Archive.EXTENSION;
+		List<Archive.Entry> directory;
+		try{
+			directory = archive.pack(archivePath,paths);
+		}catch(IOException e){
+			System.out.println("ERROR WRITING ARCHIVE! "+e.getMessage()+"\n");
+			return;
+		}
+		if(directory == null) return;
+		
+		//Prepare statistics for the user
+		long finish = System.currentTimeMillis(); //Finish time for the archiving process
+		long uncompressedSize = 0;
+		long compressedSize = 0;
+		for(Archive.Entry entry : directory){
+			uncompressedSize += entry.uncompressedSize;
+			compressedSize += entry.size;
+		}
+		
+		//Output statistics for the user
+		System.out.println("Archived "+directory.size()+" files to "+archivePath);
+		System.out.println("Time taken (miliseconds): "+(finish-start));
+		System.out.println("Uncompressed Bytes Size : "+uncompressedSize);
+		System.out.println("Compressed Bytes Size : "+compressedSize);
+	}
+	
+	/**
+	 * Carry out the steps to extract the members of the users choice from an archive.
+	 */
+	private void extractArchive(){
+		String archivePath = fm.getArchiveFile();
+		if(archivePath == null) return;
+		
+		try{
+			List<Archive.Entry> directory = archive.list(archivePath);
+			if(directory == null){
+				System.out.println("ERROR! Not a valid huffman archive!");
+				return;
+			}
+			
+			//Show the central directory and let the user select the members
+			for(int i=0; i<directory.size(); i++){
+				Archive.Entry entry = directory.get(i);
+				System.out.println((i+1)+") "+entry.name+" ("+entry.uncompressedSize+" -> "+entry.size+" bytes)");
+			}
+			System.out.print("Members to extract (e.g. 1,3 or all) >> ");
+			String choice = in.next();
+			
+			List<Archive.Entry> selected = new ArrayList<Archive.Entry>();
+			if(choice.equalsIgnoreCase("all")){
+				selected.addAll(directory);
+			}else{
+				for(String index : choice.split(",")){
+					try{
+						selected.add(directory.get(Integer.parseInt(index.trim())-1));
+					}catch(NumberFormatException | IndexOutOfBoundsException e){
+						System.out.println("INVALID MEMBER : "+index);
+					}
+				}
+			}
+			
+			long start = System.currentTimeMillis(); //Start time for the extraction process
+			int extracted = archive.extract(archivePath,selected,"data/extracted");
+			long finish = System.currentTimeMillis(); //Finish time for the extraction process
+			
+			System.out.println("Extracted "+extracted+" of "+selected.size()+" members to data/extracted");
+			System.out.println("Time taken (miliseconds): "+(finish-start));
+		}catch(IOException e){
+			System.out.println("ERROR READING ARCHIVE!\n");
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Compress and decompress a file of the users choice with every codec, as well as
+	 * picking the smallest codec per block, and output the statistics of each one.
+	 */
+	private void benchmarkCodecs(){
+		String uncompressedString = fm.readFileToString(true);
+		if(uncompressedString == null) return;
+		float uncompressedSize = uncompressedString.length(); //The size in bytes of the original data
+		System.out.println("Uncompressed Bytes Size : "+uncompressedSize);
+		
+		Codec[] codecs = container.getCodecs();
+		for(int id=-1; id<codecs.length; id++){
+			BlockContainer benchmark = new BlockContainer(MAGIC_NUMBER,BlockContainer.DEFAULT_BLOCK_SIZE,id);
+			
+			System.out.println("\n"+((id < 0)? "Smallest per block" : codecs[id].getName())+" :");
+			long start = System.currentTimeMillis(); //Start time for the compression process
+			byte[] compressedEncoding;
+			try{
+				compressedEncoding = benchmark.compress(uncompressedString);
+			}catch(IllegalStateException e){
+				System.out.println("Not applicable : "+e.getMessage());
+				continue;
+			}
+			long compressed = System.currentTimeMillis(); //Finish time for the compression process
+			String decoded = benchmark.decompress(compressedEncoding).data;
+			long finish = System.currentTimeMillis(); //Finish time for the decompression process
+			
+			float compressedSize = compressedEncoding.length; //The size in bytes of the compressed data
+			System.out.println("Compressed Bytes Size : "+compressedSize);
+			System.out.println("Compression Percentage : "+(1 - (compressedSize / uncompressedSize))*100+"%");
+			System.out.println("Bits per character : "+(compressedSize*8 / uncompressedSize));
+			System.out.println("Compression time (miliseconds): "+(compressed-start));
+			System.out.println("Decompression time (miliseconds): "+(finish-compressed));
+			System.out.println("Decoded correctly : "+uncompressedString.equals(decoded));
+		}
 	}
 }
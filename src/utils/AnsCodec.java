@@ -0,0 +1,252 @@
+package utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Table based asymmetric numeral systems (tANS) encoding and decoding.
+ *
+ * Huffman encoding spends a whole number of bits on every character,
+ * tANS keeps a state in [L, 2L) which carries fractions of a bit between
+ * characters, getting close to the entropy of skewed data while decoding
+ * with a single table lookup per character.
+ *
+ * My approach is to break the encoding into a few parts.
+ *
+ * - The number of characters and the table size
+ * - The final state of the encoder, which is where decoding starts
+ * - Every character used along with its frequency normalised to the table size
+ * - The bits written while encoding, in the order they are read while decoding
+ *
+ * @author Oleksandr Kononov
+ * @version 19-10-2026
+ *
+ */
+public class AnsCodec implements Codec {
+
+	public static final int ID = 1;
+	private static final int ALPHABET = 256; //Characters the frequency table can store
+	private static final int TABLE_LOG = 11; //The table holds 2^11 states
+
+	@Override
+	public int getId(){
+		return ID;
+	}
+
+	@Override
+	public String getName(){
+		return "tANS";
+	}
+
+	/*
+	 *
+	 * ENCODING PART OF THE ANS CODEC
+	 *
+	 */
+
+	@Override
+	public byte[] encode(String data){
+		int tableSize = 1 << TABLE_LOG;
+		int[] freq = new int[ALPHABET];
+		for(int i=0; i<data.length(); i++){
+			char c = data.charAt(i);
+			if(c >= ALPHABET) return null; //Character too big for the frequency table
+			freq[c]++;
+		}
+		int[] norm = normalise(freq,data.length(),tableSize);
+
+		/*
+		 * The encoding table maps a character and a sub state x in [f, 2f)
+		 * to the table state the decoder reads that character from, the
+		 * k-th state holding a character having sub state f+k.
+		 */
+		int[] symbols = spread(norm,tableSize);
+		int[] cumulative = new int[ALPHABET];
+		for(int s=1; s<ALPHABET; s++) cumulative[s] = cumulative[s-1]+norm[s-1];
+		int[] next = new int[ALPHABET];
+		int[] encodingTable = new int[tableSize];
+		for(int state=0; state<tableSize; state++){
+			int s = symbols[state];
+			encodingTable[cumulative[s]+next[s]++] = tableSize+state;
+		}
+
+		/*
+		 * ANS decodes in reverse, so encode from the last character to the first,
+		 * keeping the bits of each step so they can be written in decoding order.
+		 */
+		int[] bits = new int[data.length()];
+		byte[] bitCounts = new byte[data.length()];
+		int state = tableSize;
+		for(int i=data.length()-1; i>=0; i--){
+			int s = data.charAt(i);
+			int f = norm[s];
+			int nbBits = 0;
+			while((state >> nbBits) >= 2*f) nbBits++;
+			bits[i] = state & ((1 << nbBits)-1);
+			bitCounts[i] = (byte)nbBits;
+			state = encodingTable[cumulative[s]+(state >> nbBits)-f];
+		}
+
+		try{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(data.length());
+			out.writeByte(TABLE_LOG);
+			out.writeShort(state-tableSize);
+
+			int used = 0;
+			for(int f : norm) if(f > 0) used++;
+			out.writeShort(used);
+			for(int s=0; s<ALPHABET; s++){
+				if(norm[s] == 0) continue;
+				out.writeByte(s);
+				out.writeShort(norm[s]);
+			}
+
+			//Pack the bits least significant first
+			long buffer = 0;
+			int buffered = 0;
+			for(int i=0; i<data.length(); i++){
+				buffer |= ((long)bits[i]) << buffered;
+				buffered += bitCounts[i];
+				while(buffered >= 8){
+					out.writeByte((int)buffer);
+					buffer >>>= 8;
+					buffered -= 8;
+				}
+			}
+			if(buffered > 0) out.writeByte((int)buffer);
+			out.close();
+			return bytes.toByteArray();
+		}catch(IOException e){
+			throw new IllegalStateException(e); //Never thrown for an in memory stream
+		}
+	}
+
+	/**
+	 * Scales the character frequencies so they add up to the table size,
+	 * keeping at least one state for every character used.
+	 *
+	 * @param freq The frequency of every character
+	 * @param total The number of characters
+	 * @param tableSize The number of states in the table
+	 * @return The normalised frequencies
+	 */
+	private int[] normalise(int[] freq, int total, int tableSize){
+		int[] norm = new int[ALPHABET];
+		int sum = 0;
+		int largest = -1; //Most frequent character, it absorbs the rounding error
+		for(int s=0; s<ALPHABET; s++){
+			if(freq[s] == 0) continue;
+			norm[s] = Math.max(1,(int)Math.round((double)freq[s]*tableSize/total));
+			sum += norm[s];
+			if(largest == -1 || freq[s] > freq[largest]) largest = s;
+		}
+		if(largest == -1) return norm; //No characters at all
+
+		if(sum < tableSize){
+			norm[largest] += tableSize-sum;
+		}
+
+		//Too many states handed out, take them back from the biggest shares first
+		while(sum > tableSize){
+			int biggest = largest;
+			for(int s=0; s<ALPHABET; s++){
+				if(norm[s] > norm[biggest]) biggest = s;
+			}
+			int excess = Math.min(sum-tableSize,norm[biggest]/2);
+			norm[biggest] -= Math.max(1,excess);
+			sum -= Math.max(1,excess);
+		}
+		return norm;
+	}
+
+	/**
+	 * Spreads the characters over the table, so every character's states are
+	 * scattered over the whole range rather than grouped together.
+	 *
+	 * @param norm The normalised frequencies
+	 * @param tableSize The number of states in the table
+	 * @return The character decoded from each state
+	 */
+	private int[] spread(int[] norm, int tableSize){
+		int[] symbols = new int[tableSize];
+		int step = (tableSize >> 1)+(tableSize >> 3)+3; //Odd, so every state is visited once
+		int position = 0;
+		for(int s=0; s<ALPHABET; s++){
+			for(int i=0; i<norm[s]; i++){
+				symbols[position] = s;
+				position = (position+step) & (tableSize-1);
+			}
+		}
+		return symbols;
+	}
+
+	/*
+	 *
+	 * DECODING PART OF THE ANS CODEC
+	 *
+	 */
+
+	@Override
+	public String decode(byte[] encoding){
+		try{
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoding));
+			int length = in.readInt();
+			int tableLog = in.readUnsignedByte();
+			if(length == 0) return "";
+			if(length < 0 || tableLog > 15) return null;
+			int tableSize = 1 << tableLog;
+			int state = in.readUnsignedShort();
+
+			int[] norm = new int[ALPHABET];
+			int used = in.readUnsignedShort();
+			int sum = 0;
+			for(int i=0; i<used; i++){
+				int s = in.readUnsignedByte();
+				norm[s] = in.readUnsignedShort();
+				sum += norm[s];
+			}
+			if(sum != tableSize || state >= tableSize) return null;
+
+			/*
+			 * Build the decoding table, every state holds its character, the
+			 * number of bits to read and the state those bits are added to.
+			 */
+			int[] symbols = spread(norm,tableSize);
+			int[] next = norm.clone();
+			byte[] nbBits = new byte[tableSize];
+			int[] newState = new int[tableSize];
+			for(int i=0; i<tableSize; i++){
+				int x = next[symbols[i]]++;
+				int bits = tableLog-(31-Integer.numberOfLeadingZeros(x));
+				nbBits[i] = (byte)bits;
+				newState[i] = (x << bits)-tableSize;
+			}
+
+			int headerSize = 9+3*used; //Length, table log, state, count and the frequency table
+			char[] decoding = new char[length];
+			long buffer = 0;
+			int buffered = 0;
+			int position = headerSize;
+			for(int i=0; i<length; i++){
+				decoding[i] = (char)symbols[state];
+				int bits = nbBits[state];
+				while(buffered < bits){
+					if(position >= encoding.length) return null; //Truncated encoding
+					buffer |= ((long)(encoding[position++] & 0xFF)) << buffered;
+					buffered += 8;
+				}
+				state = newState[state]+(int)(buffer & ((1L << bits)-1));
+				buffer >>>= bits;
+				buffered -= bits;
+			}
+			return new String(decoding);
+		}catch(IOException e){
+			return null; //Truncated header
+		}
+	}
+}
@@ -0,0 +1,289 @@
+package utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Packs many files into one Huffman archive and extracts members from it.
+ *
+ * The archive is broken into a few parts.
+ *
+ * - Archive magic number
+ * - The block container of every member, one after the other, so members
+ * get the same transform and codec chosen per block as single files
+ * (archives written before members were block containers hold a plain
+ * Huffman encoding for each member, which are still extracted)
+ * - The central directory, listing the name, offset, compressed size and
+ * uncompressed size in bytes of every member
+ * - The offset of the central directory followed by the archive magic number
+ *
+ * Since the directory is at the end it can be read with a single seek and
+ * members can then be extracted by seeking straight to their offsets.
+ * Members are packed as raw bytes, each byte becoming the character with the
+ * same value, so extracted files are byte for byte the files that were packed.
+ * Empty files written by older archives are members with no encoding at all.
+ *
+ * @author Oleksandr Kononov
+ * @version 19-10-2026
+ *
+ */
+public class Archive {
+
+	public static final int ARCHIVE_MAGIC = 0x0CADDA7C; //Magic number for the Huffman Archive
+	public static final String EXTENSION = "har"; //File extension for the Huffman Archive
+	private static final int TRAILER_SIZE = 12; //Directory offset (long) + magic number (int)
+
+	private final FileManager fm;
+	private final int magicNumber; //Magic number of the Huffman encoding of each member
+	private final BlockContainer container; //Compresses every member
+
+	/**
+	 * Constructor for the Archive
+	 *
+	 * @param fm FileManager used to read and write the member files
+	 * @param magicNumber The HEX magic number for the Huffman Encoding of each member
+	 */
+	public Archive(FileManager fm, int magicNumber){
+		this.fm = fm;
+		this.magicNumber = magicNumber;
+		this.container = new BlockContainer(magicNumber,BlockContainer.DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Compresses every file provided in parallel and writes them into one archive.
+	 *
+	 * @param archivePath Path of the archive to be written
+	 * @param paths Paths of the files to be packed
+	 * @return The central directory of the written archive, null if a file could not be read
+	 * @throws IOException If the archive could not be written or two files share a name
+	 */
+	public List<Entry> pack(String archivePath, String[] paths) throws IOException{
+		ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		List<Future<byte[]>> encodings = new ArrayList<Future<byte[]>>();
+		List<Entry> directory = new ArrayList<Entry>();
+		Set<String> names = new HashSet<String>();
+
+		try{
+			//Read every member up front, encoding them in parallel
+			for(String path : paths){
+				String name = new File(path).getName();
+				if(!names.add(name)) throw new IOException("Two files are named "+name+", archive member names must be unique");
+				byte[] bytes = fm.readBytes(path);
+				if(bytes == null) return null;
+				final String data = new String(bytes,StandardCharsets.ISO_8859_1); //One character per byte, nothing is lost
+				directory.add(new Entry(name,0,0,bytes.length));
+				encodings.add(pool.submit(new Callable<byte[]>(){
+					@Override
+					public byte[] call(){
+						return container.compress(data);
+					}
+				}));
+			}
+
+			//Write the members in order, recording where each one starts
+			RandomAccessFile raf = new RandomAccessFile(archivePath,"rw");
+			try{
+				raf.setLength(0);
+				raf.writeInt(ARCHIVE_MAGIC);
+				for(int i=0; i<directory.size(); i++){
+					byte[] encoding = encodings.get(i).get();
+					Entry entry = directory.get(i);
+					entry.offset = raf.getFilePointer();
+					entry.size = encoding.length;
+					raf.write(encoding);
+				}
+
+				long directoryOffset = raf.getFilePointer();
+				raf.write(writeDirectory(directory));
+				raf.writeLong(directoryOffset);
+				raf.writeInt(ARCHIVE_MAGIC);
+			}finally{
+				raf.close();
+			}
+		}catch(InterruptedException | ExecutionException e){
+			throw new IOException("Failed to encode archive member", e);
+		}finally{
+			pool.shutdown();
+		}
+		return directory;
+	}
+
+	/**
+	 * Reads the central directory of an archive.
+	 *
+	 * @param archivePath Path of the archive
+	 * @return The central directory, null if the file is not a valid Huffman archive
+	 * @throws IOException If the archive could not be read
+	 */
+	public List<Entry> list(String archivePath) throws IOException{
+		RandomAccessFile raf = new RandomAccessFile(archivePath,"r");
+		try{
+			if(raf.length() < 4+TRAILER_SIZE || raf.readInt() != ARCHIVE_MAGIC) return null;
+
+			raf.seek(raf.length()-TRAILER_SIZE);
+			long directoryOffset = raf.readLong();
+			if(raf.readInt() != ARCHIVE_MAGIC) return null;
+			if(directoryOffset < 4 || directoryOffset > raf.length()-TRAILER_SIZE) return null;
+
+			byte[] directory = new byte[(int)(raf.length()-TRAILER_SIZE-directoryOffset)];
+			raf.seek(directoryOffset);
+			raf.readFully(directory);
+			return readDirectory(directory,directoryOffset);
+		}finally{
+			raf.close();
+		}
+	}
+
+	/**
+	 * Decodes the selected members concurrently, each one seeking straight to its
+	 * offset in the archive, and writes them into the output directory.
+	 *
+	 * @param archivePath Path of the archive
+	 * @param members The directory entries of the members to extract
+	 * @param outputDirectory Directory the members are written to
+	 * @return The number of members extracted
+	 * @throws IOException If the archive could not be read or a member is corrupt
+	 */
+	public int extract(final String archivePath, List<Entry> members, final String outputDirectory) throws IOException{
+		new File(outputDirectory).mkdirs();
+		ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+
+		try{
+			for(final Entry entry : members){
+				results.add(pool.submit(new Callable<Boolean>(){
+					@Override
+					public Boolean call() throws IOException{
+						//Never write outside the output directory, whatever the archive says
+						File output = new File(outputDirectory,entry.name);
+						if(!output.getCanonicalFile().getParentFile().equals(new File(outputDirectory).getCanonicalFile())){
+							return false;
+						}
+						if(entry.size == 0){
+							fm.writeFileToBytes(new byte[0],output.getPath());
+							return true;
+						}
+
+						byte[] encoding = new byte[(int)entry.size];
+						RandomAccessFile raf = new RandomAccessFile(archivePath,"r");
+						try{
+							raf.seek(entry.offset);
+							raf.readFully(encoding);
+						}finally{
+							raf.close();
+						}
+
+						String data;
+						if(BlockContainer.isContainer(encoding)){
+							BlockContainer.Decompressed decompressed = container.decompress(encoding);
+							data = (decompressed == null || decompressed.recovered)? null : decompressed.data;
+						}else{
+							data = Huffman.decode(FileManager.bytesToBinaryString(encoding),magicNumber);
+						}
+						if(data == null || data.length() != entry.uncompressedSize) return false;
+						fm.writeFileToBytes(data.getBytes(StandardCharsets.ISO_8859_1),output.getPath());
+						return true;
+					}
+				}));
+			}
+
+			int extracted = 0;
+			for(Future<Boolean> result : results){
+				if(result.get()) extracted++;
+			}
+			return extracted;
+		}catch(InterruptedException | ExecutionException e){
+			throw new IOException("Failed to extract archive member", e);
+		}finally{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Serialises the central directory.
+	 *
+	 * @param directory The entries of every member
+	 * @return byte array form of the central directory
+	 * @throws IOException Never thrown for an in memory stream
+	 */
+	private byte[] writeDirectory(List<Entry> directory) throws IOException{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(directory.size());
+		for(Entry entry : directory){
+			out.writeUTF(entry.name);
+			out.writeLong(entry.offset);
+			out.writeLong(entry.size);
+			out.writeLong(entry.uncompressedSize);
+		}
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Deserialises and validates the central directory.
+	 *
+	 * @param directory byte array form of the central directory
+	 * @param directoryOffset Where the central directory starts, the end of the last member
+	 * @return The entries of every member, null if the directory is corrupt
+	 */
+	private List<Entry> readDirectory(byte[] directory, long directoryOffset){
+		try{
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(directory));
+			int count = in.readInt();
+			if(count < 0 || count > directory.length) return null;
+			List<Entry> entries = new ArrayList<Entry>(count);
+			Set<String> names = new HashSet<String>();
+			for(int i=0; i<count; i++){
+				String name = in.readUTF();
+				long offset = in.readLong();
+				long size = in.readLong();
+				long uncompressedSize = in.readLong();
+
+				//Member names must be plain unique file names and members must lie before the directory
+				if(name.isEmpty() || name.equals(".") || name.equals("..") || name.contains("/")
+						|| name.contains("\\") || !names.add(name)) return null;
+				if(offset < 4 || size < 0 || size > directoryOffset-offset || uncompressedSize < 0) return null;
+				entries.add(new Entry(name,offset,size,uncompressedSize));
+			}
+			return entries;
+		}catch(IOException e){
+			return null; //Truncated directory
+		}
+	}
+
+	/**
+	 * A central directory entry describing one archive member.
+	 *
+	 * Every block of a member carries its own codec tables, so the
+	 * offset and size are all that is needed to decode it.
+	 */
+	public static class Entry{
+		public final String name;
+		public long offset;
+		public long size;
+		public final long uncompressedSize; //Size of the packed file in bytes
+
+		Entry(String name, long offset, long size, long uncompressedSize){
+			this.name = name;
+			this.offset = offset;
+			this.size = size;
+			this.uncompressedSize = uncompressedSize;
+		}
+	}
+}
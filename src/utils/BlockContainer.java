@@ -0,0 +1,484 @@
+package utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Splits data into blocks which are transformed and entropy encoded in
+ * parallel, and reads them back.
+ *
+ * The container is broken into a few parts.
+ *
+ * - Container magic number and format version
+ * - Every block, made of the transform used on it, the id of the codec
+ * it was encoded with, the Burrows-Wheeler primary index, the length of
+ * its encoding and the encoding itself
+ * (version 1 containers have no codec id, every block being Huffman encoded,
+ * blocks appended to them are written the same way)
+ * - The number of blocks followed by the container magic number
+ *
+ * Since every block is self contained, new blocks can be appended by
+ * overwriting the trailer with them and writing an updated trailer.
+ * While an append is in progress the header holds APPEND_MAGIC instead of
+ * the container magic number. If the append is interrupted, the decoder
+ * recovers every complete block by reading forward from the header and
+ * reports that it did, and the next append continues after those blocks.
+ * Any other container without a valid trailer is rejected as corrupt.
+ *
+ * @author Oleksandr Kononov
+ * @version 19-10-2026
+ *
+ */
+public class BlockContainer {
+
+	public static final int CONTAINER_MAGIC = 0x0CADDB10; //Magic number for the block container
+	public static final int APPEND_MAGIC = 0x0CADDB1A; //Header magic number while an append is in progress
+	public static final int VERSION = 2; //Format version of the block container
+	public static final int DEFAULT_BLOCK_SIZE = 64*1024; //Characters in each block
+	private static final int HEADER_SIZE = 5; //Magic number (int) + version (byte)
+	private static final int TRAILER_SIZE = 8; //Block count (int) + magic number (int)
+	private static final int BLOCK_HEADER_SIZE = 9; //Smallest block: transform, primary index and length
+
+	private final int magicNumber; //Magic number of the Huffman encoding of each block
+	private final int blockSize;
+	private final Codec[] codecs; //Every codec, indexed by id
+	private final Codec codec; //Codec used for every block, null to pick the smallest per block
+
+	/**
+	 * Constructor for a BlockContainer which picks the codec
+	 * giving the smallest encoding for each block
+	 *
+	 * @param magicNumber The HEX magic number for the Huffman Encoding of each block
+	 * @param blockSize The number of characters in each block
+	 */
+	public BlockContainer(int magicNumber, int blockSize){
+		this(magicNumber,blockSize,-1);
+	}
+
+	/**
+	 * Constructor for the BlockContainer
+	 *
+	 * @param magicNumber The HEX magic number for the Huffman Encoding of each block
+	 * @param blockSize The number of characters in each block
+	 * @param codecId Id of the codec used for every block, -1 to pick the smallest per block
+	 */
+	public BlockContainer(int magicNumber, int blockSize, int codecId){
+		this.magicNumber = magicNumber;
+		this.blockSize = blockSize;
+		this.codecs = new Codec[]{new HuffmanCodec(magicNumber),new AnsCodec()};
+		this.codec = (codecId < 0)? null : codecs[codecId];
+	}
+
+	/**
+	 * @return Every codec a block can be encoded with, indexed by id
+	 */
+	public Codec[] getCodecs(){
+		return codecs.clone();
+	}
+
+	/**
+	 * Describes the settings which change the compressed output, used
+	 * as the codec parameters of a cache key.
+	 *
+	 * @return String describing the container settings
+	 */
+	public String getParams(){
+		return Integer.toHexString(magicNumber)+"-v"+VERSION+"-b"+blockSize
+				+"-"+((codec == null)? "auto" : codec.getName());
+	}
+
+	/**
+	 * Checks whether the bytes start with the block container magic number,
+	 * or the one written while an append is in progress
+	 *
+	 * @param bytes The bytes of a compressed file
+	 * @return true if the bytes are a block container
+	 */
+	public static boolean isContainer(byte[] bytes){
+		if(bytes.length < HEADER_SIZE) return false;
+		int magic = readInt(bytes,0);
+		return magic == CONTAINER_MAGIC || magic == APPEND_MAGIC;
+	}
+
+	/**
+	 * Compresses the data into a block container.
+	 *
+	 * @param data Uncompressed String data
+	 * @return byte array of the complete container
+	 */
+	public byte[] compress(String data){
+		List<Block> blocks = encodeBlocks(data,VERSION);
+		try{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(CONTAINER_MAGIC);
+			out.writeByte(VERSION);
+			for(Block block : blocks) block.write(out,VERSION);
+			writeTrailer(out,blocks.size());
+			out.close();
+			return bytes.toByteArray();
+		}catch(IOException e){
+			throw new IllegalStateException(e); //Never thrown for an in memory stream
+		}
+	}
+
+	/**
+	 * Compresses the data into new blocks at the end of an existing container,
+	 * leaving the blocks already in it untouched. A new container is written if
+	 * the file does not exist yet. Blocks appended to a version 1 container are
+	 * written in that version, so they can only be Huffman encoded. If the previous
+	 * append was interrupted, the new blocks are written after the last complete one.
+	 *
+	 * @param path Path of the container
+	 * @param data Uncompressed String data to be appended
+	 * @return The number of blocks appended, -1 if the file is not a block container
+	 * @throws IOException If the container could not be read or written
+	 */
+	public int append(String path, String data) throws IOException{
+		RandomAccessFile raf = new RandomAccessFile(path,"rw");
+		try{
+			int count = 0;
+			int version = VERSION;
+			long end = HEADER_SIZE; //Where the new blocks are written
+			if(raf.length() > 0){
+				//Verify the header and find the end of the last block before touching the file
+				if(raf.length() < HEADER_SIZE) return -1;
+				int magic = raf.readInt();
+				version = raf.readByte();
+				if(version < 1 || version > VERSION) return -1;
+				if(magic == APPEND_MAGIC){
+					//The previous append was interrupted, continue after the blocks it left complete
+					byte[] container = new byte[(int)raf.length()];
+					raf.seek(0);
+					raf.readFully(container);
+					Recovery recovery = recover(container,version);
+					count = recovery.count;
+					end = recovery.end;
+				}else{
+					if(magic != CONTAINER_MAGIC || raf.length() < HEADER_SIZE+TRAILER_SIZE) return -1;
+					raf.seek(raf.length()-TRAILER_SIZE);
+					count = raf.readInt();
+					if(raf.readInt() != CONTAINER_MAGIC) return -1;
+					end = raf.length()-TRAILER_SIZE;
+				}
+			}
+
+			//Encode before touching the file, so a block no codec can encode changes nothing
+			List<Block> blocks = encodeBlocks(data,version);
+
+			/*
+			 * Mark the append as in progress before the trailer is overwritten, so a
+			 * half written append is recovered up to its last complete block rather
+			 * than read as a complete or a corrupt container.
+			 */
+			raf.seek(0);
+			raf.writeInt(APPEND_MAGIC);
+			raf.writeByte(version);
+			raf.getFD().sync();
+
+			raf.seek(end);
+			for(Block block : blocks) block.write(raf,version);
+			writeTrailer(raf,count+blocks.size());
+			raf.setLength(raf.getFilePointer());
+			raf.getFD().sync();
+
+			raf.seek(0);
+			raf.writeInt(CONTAINER_MAGIC);
+			raf.getFD().sync();
+			return blocks.size();
+		}finally{
+			raf.close();
+		}
+	}
+
+	/**
+	 * Decompresses a block container, decoding the blocks in parallel.
+	 *
+	 * A container left by an interrupted append is recovered by decoding every
+	 * complete block after the header, up to the first block which is cut off
+	 * or can not be decoded.
+	 *
+	 * @param container byte array of the complete container
+	 * @return The decoded data, null if it is not a valid container
+	 */
+	public Decompressed decompress(byte[] container){
+		if(!isContainer(container)) return null;
+		int version = container[4];
+		if(version < 1 || version > VERSION) return null;
+
+		if(readInt(container,0) == APPEND_MAGIC){
+			Recovery recovery = recover(container,version);
+			return new Decompressed(recovery.data,!recovery.complete);
+		}
+
+		//Otherwise the container must end with a trailer counting exactly the blocks before it
+		if(container.length < HEADER_SIZE+TRAILER_SIZE) return null;
+		int end = container.length-TRAILER_SIZE; //End of the last block
+		if(readInt(container,end+4) != CONTAINER_MAGIC) return null;
+		int count = readInt(container,end);
+		if(count < 0 || count > (end-HEADER_SIZE)/BLOCK_HEADER_SIZE) return null;
+
+		List<Block> blocks = new ArrayList<Block>(count);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(container,HEADER_SIZE,end-HEADER_SIZE));
+		try{
+			for(int i=0; i<count; i++) blocks.add(readBlock(in,version));
+			if(in.available() != 0) return null; //Bytes left between the last block and the trailer
+		}catch(IOException | IllegalArgumentException e){
+			return null; //Truncated container, unknown transform or unknown codec
+		}
+
+		StringBuilder data = new StringBuilder();
+		for(String block : decodeBlocks(blocks)){
+			if(block == null) return null;
+			data.append(block);
+		}
+		return new Decompressed(data.toString(),false);
+	}
+
+	/**
+	 * Reads forward from the header of a container left by an interrupted append,
+	 * keeping every block up to the first one which is cut off or can not be decoded.
+	 *
+	 * @param container byte array of the container
+	 * @param version Format version of the container
+	 * @return The data, number and end of the complete blocks
+	 */
+	private Recovery recover(byte[] container, int version){
+		List<Block> blocks = new ArrayList<Block>();
+		List<Integer> ends = new ArrayList<Integer>(); //Where each block ends in the container
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(container,HEADER_SIZE,container.length-HEADER_SIZE));
+		try{
+			while(in.available() > 0){
+				blocks.add(readBlock(in,version));
+				ends.add(container.length-in.available());
+			}
+		}catch(IOException | IllegalArgumentException e){
+			//Reached the trailer or the block cut off by the interrupted append
+		}
+
+		StringBuilder data = new StringBuilder();
+		int count = 0;
+		int end = HEADER_SIZE;
+		for(String block : decodeBlocks(blocks)){
+			if(block == null) break;
+			data.append(block);
+			end = ends.get(count++);
+		}
+
+		//Nothing was lost if only the header was left to restore
+		boolean complete = end == container.length-TRAILER_SIZE && readInt(container,end) == count
+				&& readInt(container,end+4) == CONTAINER_MAGIC;
+		return new Recovery(data.toString(),count,end,complete);
+	}
+
+	/**
+	 * Reads the next block, checking its codec is known.
+	 *
+	 * @param in Input positioned at the start of a block
+	 * @param version Format version of the container
+	 * @return The block read
+	 * @throws IOException If the block is cut off
+	 */
+	private Block readBlock(DataInputStream in, int version) throws IOException{
+		Block block = Block.read(in,version);
+		if(block.codecId >= codecs.length) throw new IllegalArgumentException("Unknown codec : "+block.codecId);
+		return block;
+	}
+
+	/**
+	 * Decodes and inverts the transform of every block in parallel.
+	 *
+	 * @param blocks The blocks to be decoded
+	 * @return The data of each block in order, null for a block which can not be decoded
+	 */
+	private List<String> decodeBlocks(final List<Block> blocks){
+		return runInParallel(blocks.size(),new Task<String>(){
+			@Override
+			public String run(int i){
+				Block block = blocks.get(i);
+				try{
+					String transformed = codecs[block.codecId].decode(block.encoding);
+					return (transformed == null)? null : block.transform.invert(transformed,block.primaryIndex);
+				}catch(RuntimeException e){
+					return null; //Corrupt block
+				}
+			}
+		});
+	}
+
+	/**
+	 * Writes the trailer holding the block count.
+	 *
+	 * @param out Output positioned after the last block
+	 * @param count The number of blocks in the container
+	 * @throws IOException If the trailer could not be written
+	 */
+	private static void writeTrailer(DataOutput out, int count) throws IOException{
+		out.writeInt(count);
+		out.writeInt(CONTAINER_MAGIC);
+	}
+
+	/**
+	 * Splits the data into blocks, then transforms and encodes them in parallel,
+	 * trying every codec on a block unless one was chosen. Only encodings which
+	 * decode back to the block are kept.
+	 *
+	 * @param data Uncompressed String data
+	 * @param version Format version the blocks are written in
+	 * @return The encoded blocks in order
+	 */
+	private List<Block> encodeBlocks(String data, int version){
+		final Codec[] candidates = (version == 1)? new Codec[]{codecs[HuffmanCodec.ID]}
+				: (codec == null)? codecs : new Codec[]{codec};
+		final List<String> parts = new ArrayList<String>();
+		for(int i=0; i<data.length(); i+=blockSize){
+			parts.add(data.substring(i,Math.min(data.length(),i+blockSize)));
+		}
+
+		return runInParallel(parts.size(),new Task<Block>(){
+			@Override
+			public Block run(int i){
+				Transform.Transformed transformed = Transform.select(parts.get(i));
+				Codec best = null;
+				byte[] smallest = null;
+				for(Codec candidate : candidates){
+					byte[] encoding = candidate.encode(transformed.data);
+					if(encoding != null && (smallest == null || encoding.length < smallest.length)
+							&& transformed.data.equals(candidate.decode(encoding))){
+						best = candidate;
+						smallest = encoding;
+					}
+				}
+				if(best == null) throw new IllegalStateException("No codec can encode the characters in block "+(i+1));
+				return new Block(transformed.transform,best.getId(),transformed.primaryIndex,smallest);
+			}
+		});
+	}
+
+	/**
+	 * Runs a task for every index on a thread pool.
+	 *
+	 * @param count The number of tasks
+	 * @param task The task to run for each index
+	 * @return The results in index order
+	 */
+	private static <T> List<T> runInParallel(int count, final Task<T> task){
+		ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		List<Future<T>> futures = new ArrayList<Future<T>>(count);
+		try{
+			for(int i=0; i<count; i++){
+				final int index = i;
+				futures.add(pool.submit(new Callable<T>(){
+					@Override
+					public T call(){
+						return task.run(index);
+					}
+				}));
+			}
+
+			List<T> results = new ArrayList<T>(count);
+			for(Future<T> future : futures) results.add(future.get());
+			return results;
+		}catch(ExecutionException e){
+			if(e.getCause() instanceof RuntimeException) throw (RuntimeException)e.getCause();
+			throw new IllegalStateException("Block task failed", e);
+		}catch(InterruptedException e){
+			throw new IllegalStateException("Block task failed", e);
+		}finally{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Reads a big endian int from the bytes at the offset provided
+	 */
+	private static int readInt(byte[] bytes, int offset){
+		return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset+1] & 0xFF) << 16)
+				| ((bytes[offset+2] & 0xFF) << 8) | (bytes[offset+3] & 0xFF);
+	}
+
+	/**
+	 * A task run for each block
+	 */
+	private interface Task<T>{
+		T run(int index);
+	}
+
+	/**
+	 * The result of decompressing a container.
+	 */
+	public static class Decompressed{
+		public final String data;
+		public final boolean recovered; //true if an append was interrupted and only the blocks before it were decoded
+
+		Decompressed(String data, boolean recovered){
+			this.data = data;
+			this.recovered = recovered;
+		}
+	}
+
+	/**
+	 * The complete blocks found in a container left by an interrupted append
+	 */
+	private static class Recovery{
+		final String data;
+		final int count;
+		final int end; //Where the last complete block ends
+		final boolean complete; //true if a valid trailer follows the blocks
+
+		Recovery(String data, int count, int end, boolean complete){
+			this.data = data;
+			this.count = count;
+			this.end = end;
+			this.complete = complete;
+		}
+	}
+
+	/**
+	 * One transformed and entropy encoded block of the container
+	 */
+	static class Block{
+		final Transform transform;
+		final int codecId;
+		final int primaryIndex;
+		final byte[] encoding;
+
+		Block(Transform transform, int codecId, int primaryIndex, byte[] encoding){
+			this.transform = transform;
+			this.codecId = codecId;
+			this.primaryIndex = primaryIndex;
+			this.encoding = encoding;
+		}
+
+		void write(DataOutput out, int version) throws IOException{
+			out.writeByte(transform.ordinal());
+			if(version > 1) out.writeByte(codecId);
+			out.writeInt(primaryIndex);
+			out.writeInt(encoding.length);
+			out.write(encoding);
+		}
+
+		static Block read(DataInputStream in, int version) throws IOException{
+			Transform transform = Transform.fromId(in.readUnsignedByte());
+			int codecId = (version == 1)? HuffmanCodec.ID : in.readUnsignedByte();
+			int primaryIndex = in.readInt();
+			int length = in.readInt();
+			if(length < 0 || length > in.available()) throw new IOException("Invalid block length : "+length);
+			byte[] encoding = new byte[length];
+			in.readFully(encoding);
+			return new Block(transform,codecId,primaryIndex,encoding);
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package utils;
+
+/**
+ * An entropy coder which the block container can use for a block.
+ * 
+ * Every codec has a unique id which is written with each block,
+ * so the decoder knows which backend to decode the block with.
+ * 
+ * @author Oleksandr Kononov
+ * @version 19-10-2026
+ *
+ */
+public interface Codec {
+	
+	/**
+	 * @return The id written with every block encoded by this codec
+	 */
+	int getId();
+	
+	/**
+	 * @return The name of this codec shown to the user
+	 */
+	String getName();
+	
+	/**
+	 * Encodes the data
+	 * 
+	 * @param data Uncompressed String data
+	 * @return byte array of the complete encoding, null if this codec cannot encode the data
+	 */
+	byte[] encode(String data);
+	
+	/**
+	 * Decodes data encoded by {@link #encode(String)}
+	 * 
+	 * @param encoding byte array of the complete encoding
+	 * @return The decoded String, null if the encoding is not valid for this codec
+	 */
+	String decode(byte[] encoding);
+}
@@ -0,0 +1,339 @@
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of previously compressed outputs.
+ *
+ * Entries are keyed on a SHA-256 digest of the uncompressed data together
+ * with the codec parameters that produced the compressed bytes, so
+ * resubmitting identical data skips the whole histogram, tree and
+ * encoding pipeline.
+ *
+ * The memory tier is a size bounded LRU. Every entry is also written to
+ * the disk tier, so it is still found after being evicted from memory or
+ * after the program restarts, and promoted back into memory when hit.
+ * The disk tier is a size bounded LRU as well, its index is loaded from the
+ * spill directory once and kept in memory, so no put has to scan the directory.
+ * Each spill file starts with a SHA-256 digest of the compressed bytes, so a
+ * damaged spill is dropped instead of being handed out as compressed output.
+ *
+ * @author Oleksandr Kononov
+ * @version 19-10-2026
+ *
+ */
+public class CompressionCache {
+
+	private static final int DIGEST_SIZE = 32; //Bytes in a SHA-256 digest
+
+	private final long maxMemoryBytes; //Limit for the compressed bytes held in memory
+	private final long maxDiskBytes; //Limit for the compressed bytes spilled to disk
+	private final File spillDirectory; //Directory for the disk tier, null if disabled
+	private long memoryBytes = 0; //Compressed bytes currently held in memory
+	private long diskBytes = 0; //Bytes currently held in the spill directory
+
+	private long hits = 0;
+	private long diskHits = 0;
+	private long misses = 0;
+
+	/*
+	 * Access ordered map, so iteration always starts with the
+	 * least recently used entry.
+	 */
+	private final LinkedHashMap<String,byte[]> entries = new LinkedHashMap<String,byte[]>(16,0.75f,true);
+	
+	/*
+	 * Access ordered index of the spilled entries and their file sizes,
+	 * so the least recently used spill is always evicted first.
+	 */
+	private final LinkedHashMap<String,Long> spilled = new LinkedHashMap<String,Long>(16,0.75f,true);
+
+	/**
+	 * Constructor for a memory only cache
+	 *
+	 * @param maxMemoryBytes maximum amount of compressed bytes kept in memory
+	 */
+	public CompressionCache(long maxMemoryBytes){
+		this(maxMemoryBytes,null,0);
+	}
+
+	/**
+	 * Constructor for a cache with a disk spill tier
+	 *
+	 * @param maxMemoryBytes maximum amount of compressed bytes kept in memory
+	 * @param spillDirectory directory every entry is written to, null to disable
+	 * @param maxDiskBytes maximum amount of compressed bytes kept in the spill directory
+	 */
+	public CompressionCache(long maxMemoryBytes, String spillDirectory, long maxDiskBytes){
+		this.maxMemoryBytes = maxMemoryBytes;
+		this.maxDiskBytes = maxDiskBytes;
+		this.spillDirectory = (spillDirectory == null)? null : new File(spillDirectory);
+		if(this.spillDirectory != null){
+			this.spillDirectory.mkdirs();
+			loadSpillIndex();
+		}
+	}
+	
+	/**
+	 * Builds the index of the spill directory, the least recently
+	 * used entries first, and drops half written entries.
+	 */
+	private void loadSpillIndex(){
+		File[] files = spillDirectory.listFiles();
+		if(files == null) return;
+		
+		final long[] modified = new long[files.length];
+		Integer[] order = new Integer[files.length];
+		for(int i=0; i<files.length; i++){
+			modified[i] = files[i].lastModified(); //Read once, it is a system call per file
+			order[i] = i;
+		}
+		Arrays.sort(order,new Comparator<Integer>(){
+			@Override
+			public int compare(Integer a, Integer b){
+				return Long.compare(modified[a],modified[b]);
+			}
+		});
+		
+		for(int i : order){
+			String name = files[i].getName();
+			if(name.endsWith(".tmp")){
+				files[i].delete(); //Left behind by an interrupted spill
+			}else if(name.endsWith(".dat")){
+				long size = files[i].length();
+				spilled.put(name.substring(0,name.length()-4),size);
+				diskBytes += size;
+			}
+		}
+		trimSpillDirectory();
+	}
+
+	/**
+	 * Builds the cache key for some data and the codec parameters used on it
+	 *
+	 * @param data Uncompressed String data
+	 * @param codecParams String describing the codec and its settings
+	 * @return The key for this data and codec
+	 */
+	public static String key(String data, String codecParams){
+		StringBuilder key = new StringBuilder();
+		for(byte b : sha256(data.getBytes(StandardCharsets.UTF_16BE))) key.append(String.format("%02x",b));
+		return key.append("-").append(codecParams).toString();
+	}
+
+	/**
+	 * @param bytes Bytes to be digested
+	 * @return The SHA-256 digest of the bytes
+	 */
+	private static byte[] sha256(byte[] bytes){
+		try{
+			return MessageDigest.getInstance("SHA-256").digest(bytes);
+		}catch(NoSuchAlgorithmException e){
+			throw new IllegalStateException(e); //Every JVM provides SHA-256
+		}
+	}
+
+	/**
+	 * Looks up the compressed bytes for a key, checking memory
+	 * first and then the disk tier.
+	 *
+	 * @param key Key from {@link #key(String, String)}
+	 * @return The cached compressed bytes, or null on a miss
+	 */
+	public synchronized byte[] get(String key){
+		byte[] compressed = entries.get(key);
+		if(compressed != null){
+			hits++;
+			touchSpilled(key); //Keep the disk tier in step with what is actually used
+			return compressed;
+		}
+
+		compressed = readSpilled(key);
+		if(compressed != null){
+			diskHits++;
+			storeInMemory(key,compressed);
+			return compressed;
+		}
+
+		misses++;
+		return null;
+	}
+
+	/**
+	 * Stores the compressed bytes for a key in memory and on disk.
+	 *
+	 * @param key Key from {@link #key(String, String)}
+	 * @param compressed The compressed bytes for this key
+	 */
+	public synchronized void put(String key, byte[] compressed){
+		storeInMemory(key,compressed);
+		spill(key,compressed);
+	}
+
+	/**
+	 * Stores the compressed bytes for a key in memory, evicting the least
+	 * recently used entries if the memory limit is exceeded.
+	 *
+	 * @param key Key from {@link #key(String, String)}
+	 * @param compressed The compressed bytes for this key
+	 */
+	private void storeInMemory(String key, byte[] compressed){
+		byte[] previous = entries.put(key,compressed);
+		if(previous != null) memoryBytes -= previous.length;
+		memoryBytes += compressed.length;
+
+		Iterator<Map.Entry<String,byte[]>> it = entries.entrySet().iterator();
+		while(memoryBytes > maxMemoryBytes && it.hasNext()){
+			Map.Entry<String,byte[]> eldest = it.next();
+			it.remove();
+			memoryBytes -= eldest.getValue().length;
+		}
+	}
+
+	/**
+	 * Writes an entry into the spill directory
+	 *
+	 * @param key Key of the entry
+	 * @param compressed Compressed bytes of the entry
+	 */
+	private void spill(String key, byte[] compressed){
+		long size = DIGEST_SIZE+compressed.length;
+		if(spillDirectory == null || size > maxDiskBytes) return;
+
+		//Write to a temporary file first, so a half written entry is never read back
+		File temp = new File(spillDirectory,key+".tmp");
+		BufferedOutputStream bos = null;
+		try{
+			bos = new BufferedOutputStream(new FileOutputStream(temp));
+			bos.write(sha256(compressed));
+			bos.write(compressed);
+			bos.close();
+			bos = null;
+			File file = new File(spillDirectory,key+".dat");
+			file.delete();
+			removeSpilled(key);
+			if(temp.renameTo(file)){
+				spilled.put(key,size);
+				diskBytes += size;
+			}else{
+				temp.delete();
+			}
+		}catch(IOException e){
+			System.out.println("ERROR SPILLING CACHE ENTRY!\n");
+			e.printStackTrace();
+		}finally{
+			try{
+				if(bos != null) bos.close();
+			}catch(IOException e){}
+		}
+		trimSpillDirectory();
+	}
+
+	/**
+	 * Reads an entry back from the spill directory
+	 *
+	 * @param key Key of the entry
+	 * @return The compressed bytes, or null if it was never spilled or is damaged
+	 */
+	private byte[] readSpilled(String key){
+		if(spillDirectory == null || !spilled.containsKey(key)) return null;
+		File file = new File(spillDirectory,key+".dat");
+
+		BufferedInputStream bis = null;
+		try{
+			byte[] spill = new byte[(int)file.length()];
+			bis = new BufferedInputStream(new FileInputStream(file));
+			int read = 0;
+			while(read < spill.length){
+				int n = bis.read(spill,read,spill.length-read);
+				if(n == -1) break;
+				read += n;
+			}
+
+			//Only trust the bytes if they match their digest and form a block container
+			byte[] compressed = (read < DIGEST_SIZE)? null : Arrays.copyOfRange(spill,DIGEST_SIZE,read);
+			if(read < spill.length || compressed == null || !BlockContainer.isContainer(compressed)
+					|| !MessageDigest.isEqual(Arrays.copyOf(spill,DIGEST_SIZE),sha256(compressed))){
+				bis.close();
+				bis = null;
+				file.delete();
+				removeSpilled(key); //Damaged or changed underneath the cache
+				return null;
+			}
+			touchSpilled(key);
+			return compressed;
+		}catch(IOException e){
+			System.out.println("ERROR READING CACHE ENTRY!\n");
+			e.printStackTrace();
+			removeSpilled(key);
+			return null;
+		}finally{
+			try{
+				if(bis != null) bis.close();
+			}catch(IOException e){}
+		}
+	}
+
+	/**
+	 * Marks a spilled entry as used, in the index and on its file so the
+	 * order survives a restart
+	 *
+	 * @param key Key of the entry
+	 */
+	private void touchSpilled(String key){
+		if(spillDirectory == null || spilled.get(key) == null) return;
+		new File(spillDirectory,key+".dat").setLastModified(System.currentTimeMillis());
+	}
+	
+	/**
+	 * Drops a spilled entry from the index
+	 *
+	 * @param key Key of the entry
+	 */
+	private void removeSpilled(String key){
+		Long size = spilled.remove(key);
+		if(size != null) diskBytes -= size;
+	}
+	
+	/**
+	 * Deletes the least recently used spilled entries until the disk tier fits its limit
+	 */
+	private void trimSpillDirectory(){
+		Iterator<Map.Entry<String,Long>> it = spilled.entrySet().iterator();
+		while(diskBytes > maxDiskBytes && it.hasNext()){
+			Map.Entry<String,Long> eldest = it.next();
+			it.remove();
+			diskBytes -= eldest.getValue();
+			new File(spillDirectory,eldest.getKey()+".dat").delete();
+		}
+	}
+	
+	public synchronized long getHits(){
+		return hits;
+	}
+
+	public synchronized long getDiskHits(){
+		return diskHits;
+	}
+
+	public synchronized long getMisses(){
+		return misses;
+	}
+
+	public synchronized int size(){
+		return entries.size();
+	}
+}
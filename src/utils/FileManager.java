@@ -3,6 +3,7 @@ package utils;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -65,23 +66,14 @@ public class FileManager{
 		byte b = 0;
 		try {
 			while((b =(byte) bis.read()) != -1){
-				String binaryFormat = Integer.toString((int)b, 2);
-				while(binaryFormat.length() < 7) binaryFormat = "0"+binaryFormat;
-				sb.append(binaryFormat);
+				sb.append(byteToBinary(b));
 			}
 		} catch (IOException e) {
 			System.out.println("ERROR READING FILE!\n");
 			e.printStackTrace();
 		}	
 		
-		/*
-		 * Remove the tailing zero's by using the last byte to inform us how many
-		 * there were.
-		 */
-		result = sb.toString();
-		String spacesString = result.substring(result.length()-7, result.length());
-		int spaces = Integer.parseInt(spacesString,2);
-		result = result.substring(0, result.length()-7-spaces);
+		result = removePadding(sb.toString());
 		
 		try {
 			if(bis != null) bis.close();
@@ -93,19 +85,107 @@ public class FileManager{
 		return result;
 	}
 	
+	/**
+	 * Returns the raw bytes of a selected Huffman encoded file.
+	 * 
+	 * @return The bytes of the file, null if cancelled or unreadable
+	 */
+	public byte[] readFileToBytes(){
+		return readBytes(getFile(false));
+	}
+	
+	/**
+	 * Returns the raw bytes of the file at the path provided.
+	 * 
+	 * @param path Path of the file, null if the selection was cancelled
+	 * @return The bytes of the file, null if cancelled or unreadable
+	 */
+	public byte[] readBytes(String path){
+		if(path == null){
+			System.out.println("File Selection Canceled\n");
+			return null;
+		}
+		
+		BufferedInputStream bis = null;
+		try{
+			bis = new BufferedInputStream(new FileInputStream(path));
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while((read = bis.read(buffer)) != -1) bytes.write(buffer,0,read);
+			return bytes.toByteArray();
+		}catch(IOException e){
+			System.out.println("ERROR READING FILE!\n");
+			e.printStackTrace();
+			return null;
+		}finally{
+			try{
+				if(bis != null) bis.close();
+			}catch(IOException e){}
+		}
+	}
+	
+	/**
+	 * Converts the bytes of a Huffman encoding back into the String
+	 * of binary which will be used for Huffman decoding.
+	 * 
+	 * @param bytes The bytes of a Huffman encoding
+	 * @return String data of the Huffman encoding
+	 */
+	public static String bytesToBinaryString(byte[] bytes){
+		StringBuilder sb = new StringBuilder();
+		for(byte b : bytes) sb.append(byteToBinary(b));
+		return removePadding(sb.toString());
+	}
+	
+	/**
+	 * Formats a byte of the encoding as 7 binary digits
+	 * 
+	 * @param b byte of the encoding
+	 * @return The 7 digit binary form of the byte
+	 */
+	private static String byteToBinary(byte b){
+		String binaryFormat = Integer.toString((int)b, 2);
+		while(binaryFormat.length() < 7) binaryFormat = "0"+binaryFormat;
+		return binaryFormat;
+	}
+	
+	/**
+	 * Remove the tailing zero's by using the last byte to inform us how many
+	 * there were.
+	 * 
+	 * @param binary The binary String including the padding byte
+	 * @return The binary String without the padding
+	 */
+	private static String removePadding(String binary){
+		String spacesString = binary.substring(binary.length()-7, binary.length());
+		int spaces = Integer.parseInt(spacesString,2);
+		return binary.substring(0, binary.length()-7-spaces);
+	}
+	
 	/**
 	 * Returns the text of a selected file.
 	 * 
 	 * @return String data of a text file which is to be encoded by Huffman encoding
 	 */
 	private String readUnencodedFile(){
+		return readTextFile(getFile(true));
+	}
+	
+	/**
+	 * Returns the text of the file at the path provided.
+	 * 
+	 * @param path Path of the text file, null if the selection was cancelled
+	 * @return String data of a text file which is to be encoded by Huffman encoding
+	 */
+	public String readTextFile(String path){
 		InputStream is = null;;
 		BufferedReader buf = null;
 		String line; //A line of text from the file
 		StringBuilder sb; //StringBuilder to build the complete data String
 		
 		try{
-			is = new FileInputStream(getFile(true));
+			is = new FileInputStream(path);
 			buf = new BufferedReader(new InputStreamReader(is));
 			        
 			line = buf.readLine();
@@ -144,11 +224,21 @@ public class FileManager{
 	 * @param huffmanCode Byte array from the Huffman Encoding to be written
 	 */
 	public void writeFileToBytes(byte[] huffmanCode){
+		writeFileToBytes(huffmanCode,"data/output.dat");
+	}
+	
+	/**
+	 * Writes the bytes provided to the file at the path provided
+	 * 
+	 * @param bytes Byte array to be written
+	 * @param path Path of the output file
+	 */
+	public void writeFileToBytes(byte[] bytes, String path){
 		BufferedOutputStream bos = null;
 		try{
-			bos = new BufferedOutputStream(new FileOutputStream("data/output.dat"));
+			bos = new BufferedOutputStream(new FileOutputStream(path));
 			try{
-				bos.write(huffmanCode);
+				bos.write(bytes);
 				bos.close();
 			}catch(IOException e){
 				e.printStackTrace();
@@ -167,23 +257,68 @@ public class FileManager{
 	 */
 	private String getFile(boolean forEncoding){
 		
-		String filePath = "";
-		JFrame jf = new JFrame( "Please choose a file to compress" ); //Title for JFrame container
+		FileFilter filter = (forEncoding)? new FileNameExtensionFilter("Text Files","txt"):
+        	new FileNameExtensionFilter("Dat File","dat");
+		File[] files = selectFiles("Please choose a file to compress",filter,false);
+		return (files == null)? null : files[0].getPath();
+	}
+	
+	/**
+	 * Retrieve the path of a Huffman encoded file that new data will be appended to.
+	 * 
+	 * @return The path of the selected file, null if cancelled
+	 */
+	public String getCompressedFile(){
+		return getFile(false);
+	}
+	
+	/**
+	 * Retrieve the paths of the text files that will be packed into an archive.
+	 * 
+	 * @return The paths of the selected files, null if cancelled
+	 */
+	public String[] getFilesToArchive(){
+		File[] files = selectFiles("Please choose files to archive",
+				new FileNameExtensionFilter("Text Files","txt"),true);
+		if(files == null) return null;
+		
+		String[] paths = new String[files.length];
+		for(int i=0; i<files.length; i++) paths[i] = files[i].getPath();
+		return paths;
+	}
+	
+	/**
+	 * Retrieve the path of a Huffman archive that will be extracted.
+	 * 
+	 * @return The path of the selected archive, null if cancelled
+	 */
+	public String getArchiveFile(){
+		File[] files = selectFiles("Please choose an archive to extract",
+				new FileNameExtensionFilter("Huffman Archive",Archive.EXTENSION),false);
+		return (files == null)? null : files[0].getPath();
+	}
+	
+	/**
+	 * Let the user pick one or more files with a file chooser.
+	 * 
+	 * @param title Title for the JFrame container
+	 * @param filter Filter for the file types shown
+	 * @param multiple Whether more than one file can be selected
+	 * @return The selected files, null if cancelled
+	 */
+	private File[] selectFiles(String title, FileFilter filter, boolean multiple){
+		
+		JFrame jf = new JFrame( title );
         jf.setAlwaysOnTop( true );
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setCurrentDirectory(new File("."));
-        FileFilter filter = (forEncoding)? new FileNameExtensionFilter("Text Files","txt"):
-        	new FileNameExtensionFilter("Dat File","dat");
         fileChooser.setFileFilter(filter);
-        fileChooser.showOpenDialog( jf );
-        try{
-        	filePath = fileChooser.getSelectedFile().getPath();
-        }catch(NullPointerException e){
-        	jf.dispose();
-        	return null;
-        }
+        fileChooser.setMultiSelectionEnabled(multiple);
+        int option = fileChooser.showOpenDialog( jf );
         jf.dispose();
+        if(option != JFileChooser.APPROVE_OPTION) return null;
         
-        return filePath;
+        File[] files = (multiple)? fileChooser.getSelectedFiles() : new File[]{fileChooser.getSelectedFile()};
+        return (files.length == 0 || files[0] == null)? null : files;
 	}
 }
@@ -86,6 +86,17 @@ public class Huffman {
 			queue.add(node);
 		}
 		
+		/*
+		 * A tree with a single leaf has no encoding for it, so give the
+		 * leaf an unused sibling (e.g. a block that is one long run).
+		 */
+		if(queue.size() == 1){
+			char only = charNodes.keySet().iterator().next();
+			Node sibling = new Node(String.valueOf((char)((only+1) % 128)));
+			sibling.freq = 0;
+			queue.add(sibling);
+		}
+		
 		buildHuffmanTree(queue);
 	}
 	
@@ -351,6 +362,26 @@ public class Huffman {
 		}
 	}
 	
+	/**
+	 * Verifies a complete Huffman encoding with the magic number, separates it
+	 * into the tree instructions and the encoded data and decodes it.
+	 * 
+	 * @param compressedString The complete Huffman encoding in it's binary String form
+	 * @param magicNumber The HEX magic number for the Huffman Encoding
+	 * @return A decoded String from the encoding, null if it is not Huffman encoded
+	 */
+	public static String decode(String compressedString, int magicNumber){
+		String hexCheck = Integer.toBinaryString(magicNumber);
+		int start = hexCheck.length(); //Start of the 13 bit instructions length
+		if(compressedString.length() < start+13 || !compressedString.substring(0,start).equals(hexCheck)){
+			return null;
+		}
+		int indexValue = Integer.parseInt(compressedString.substring(start,start+13),2);
+		
+		Huffman huffman = new Huffman(compressedString.substring(start+13,start+13+indexValue),false);
+		return huffman.getDecoding(compressedString.substring(start+13+indexValue));
+	}
+	
 	/**
 	 * Uses the built Huffman Tree to find the character with the encoding data,
 	 * building up the decoded String from that
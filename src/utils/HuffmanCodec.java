@@ -0,0 +1,47 @@
+package utils;
+
+/**
+ * Makes the Huffman encoding available as a {@link Codec}.
+ * 
+ * @author Oleksandr Kononov
+ * @version 19-10-2026
+ *
+ */
+public class HuffmanCodec implements Codec {
+	
+	public static final int ID = 0;
+	private final int magicNumber; //The HEX magic number for the Huffman Encoding
+	
+	/**
+	 * Constructor for the HuffmanCodec
+	 * 
+	 * @param magicNumber The HEX magic number for the Huffman Encoding
+	 */
+	public HuffmanCodec(int magicNumber){
+		this.magicNumber = magicNumber;
+	}
+	
+	@Override
+	public int getId(){
+		return ID;
+	}
+	
+	@Override
+	public String getName(){
+		return "Huffman";
+	}
+	
+	@Override
+	public byte[] encode(String data){
+		//The Huffman Tree instructions only store 7 bit characters
+		for(int i=0; i<data.length(); i++){
+			if(data.charAt(i) >= 128) return null;
+		}
+		return new Huffman(data,true).getEncoding(data,magicNumber);
+	}
+	
+	@Override
+	public String decode(byte[] encoding){
+		return Huffman.decode(FileManager.bytesToBinaryString(encoding),magicNumber);
+	}
+}
@@ -0,0 +1,353 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Transforms which are applied to a block before Huffman encoding, so
+ * runs and repeated substrings turn into skewed character frequencies
+ * that the Huffman Tree can exploit.
+ *
+ * - RLE replaces runs of a character with three copies and a count
+ * - BWT_MTF sorts the block with the Burrows-Wheeler transform, grouping
+ * characters with similar contexts, then move-to-front turns those groups
+ * into runs of small numbers
+ * - BWT_MTF_RLE additionally run length encodes the move-to-front output
+ *
+ * All transforms keep characters in the 7 bit ASCII range the Huffman
+ * Tree instructions can store.
+ *
+ * @author Oleksandr Kononov
+ * @version 19-10-2026
+ *
+ */
+public enum Transform {
+	NONE, RLE, BWT_MTF, BWT_MTF_RLE;
+
+	private static final int ALPHABET = 128; //Characters the Huffman Tree instructions can store
+	private static final int RUN_THRESHOLD = 3; //Repeats before a run count is written
+	private static final int MAX_RUN = RUN_THRESHOLD + ALPHABET - 1; //Longest run a single count can hold
+
+	/**
+	 * Returns the Transform stored with the id provided
+	 *
+	 * @param id The id written in the container
+	 * @return The Transform for this id
+	 */
+	public static Transform fromId(int id){
+		if(id < 0 || id >= values().length) throw new IllegalArgumentException("Unknown transform : "+id);
+		return values()[id];
+	}
+
+	/**
+	 * Tries every transform on the block and picks the one with the smallest
+	 * estimated Huffman encoding.
+	 *
+	 * @param block Uncompressed String data of one block
+	 * @return The chosen transform along with the transformed data
+	 */
+	public static Transformed select(String block){
+		Transformed best = new Transformed(NONE,block,0);
+		for(int i=0; i<block.length(); i++){
+			if(block.charAt(i) >= ALPHABET) return best; //Only plain ASCII can be transformed
+		}
+
+		int[] primaryIndex = new int[1];
+		String mtf = moveToFront(bwt(block,primaryIndex));
+		Transformed[] candidates = {
+				new Transformed(RLE,runLengthEncode(block),0),
+				new Transformed(BWT_MTF,mtf,primaryIndex[0]),
+				new Transformed(BWT_MTF_RLE,runLengthEncode(mtf),primaryIndex[0])
+		};
+
+		double bestCost = estimateCost(best.data);
+		for(Transformed candidate : candidates){
+			double cost = estimateCost(candidate.data);
+			if(cost < bestCost){
+				best = candidate;
+				bestCost = cost;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Reverses this transform.
+	 *
+	 * @param data The transformed String data
+	 * @param primaryIndex The Burrows-Wheeler primary index stored with the block
+	 * @return The original String data
+	 */
+	public String invert(String data, int primaryIndex){
+		switch(this){
+		case RLE:
+			return runLengthDecode(data);
+		case BWT_MTF:
+			return inverseBwt(inverseMoveToFront(data),primaryIndex);
+		case BWT_MTF_RLE:
+			return inverseBwt(inverseMoveToFront(runLengthDecode(data)),primaryIndex);
+		default:
+			return data;
+		}
+	}
+
+	/**
+	 * Estimates the size in bits of the Huffman encoding of the data from its
+	 * character entropy, adding 8 bits for each character in the tree instructions.
+	 *
+	 * @param data String data to be estimated
+	 * @return The estimated size in bits
+	 */
+	private static double estimateCost(String data){
+		int[] freq = new int[ALPHABET];
+		int distinct = 0;
+		for(int i=0; i<data.length(); i++){
+			if(freq[data.charAt(i)]++ == 0) distinct++;
+		}
+
+		double bits = distinct*8;
+		for(int f : freq){
+			if(f > 0) bits -= f*(Math.log((double)f/data.length())/Math.log(2));
+		}
+		return bits;
+	}
+
+	/*
+	 *
+	 * RUN LENGTH ENCODING
+	 *
+	 */
+
+	/**
+	 * Writes runs of a character as three copies of it followed by a character
+	 * holding the number of further repeats.
+	 *
+	 * @param data String data to be encoded
+	 * @return The run length encoded String
+	 */
+	static String runLengthEncode(String data){
+		StringBuilder encoding = new StringBuilder(data.length());
+		int i = 0;
+		while(i < data.length()){
+			char c = data.charAt(i);
+			int run = 1;
+			while(i+run < data.length() && data.charAt(i+run) == c && run < MAX_RUN) run++;
+
+			for(int j=0; j<Math.min(run,RUN_THRESHOLD); j++) encoding.append(c);
+			if(run >= RUN_THRESHOLD) encoding.append((char)(run-RUN_THRESHOLD));
+			i += run;
+		}
+		return encoding.toString();
+	}
+
+	/**
+	 * Expands the runs written by {@link #runLengthEncode(String)}
+	 *
+	 * @param data Run length encoded String data
+	 * @return The decoded String
+	 */
+	static String runLengthDecode(String data){
+		StringBuilder decoding = new StringBuilder(data.length());
+		int i = 0;
+		while(i < data.length()){
+			char c = data.charAt(i);
+			int run = 1;
+			while(i+run < data.length() && data.charAt(i+run) == c && run < RUN_THRESHOLD) run++;
+
+			for(int j=0; j<run; j++) decoding.append(c);
+			i += run;
+			if(run == RUN_THRESHOLD){
+				for(int j=0; j<data.charAt(i); j++) decoding.append(c);
+				i++;
+			}
+		}
+		return decoding.toString();
+	}
+
+	/*
+	 *
+	 * BURROWS-WHEELER TRANSFORM
+	 *
+	 */
+
+	/**
+	 * Sorts the suffixes of the data followed by a sentinel smaller than every
+	 * character, by prefix doubling with counting sorts.
+	 *
+	 * @param data String data to be sorted
+	 * @return The suffix array, the sentinel suffix first
+	 */
+	static int[] suffixArray(String data){
+		int n = data.length()+1;
+		int classes = ALPHABET+1;
+		int[] sa = new int[n];
+		int[] rank = new int[n];
+		int[] count = new int[Math.max(classes,n)];
+
+		//Sort by the first character, the sentinel being the smallest
+		for(int i=0; i<n; i++){
+			rank[i] = (i == n-1)? 0 : data.charAt(i)+1;
+			count[rank[i]]++;
+		}
+		for(int i=1; i<classes; i++) count[i] += count[i-1];
+		for(int i=n-1; i>=0; i--) sa[--count[rank[i]]] = i;
+
+		classes = 1;
+		int[] sorted = new int[n];
+		sorted[sa[0]] = 0;
+		for(int i=1; i<n; i++){
+			if(rank[sa[i]] != rank[sa[i-1]]) classes++;
+			sorted[sa[i]] = classes-1;
+		}
+		rank = sorted;
+
+		/*
+		 * Each pass sorts by the first 2h characters, using that the second
+		 * half of every suffix is already sorted by the previous pass.
+		 * Thanks to the unique sentinel the cyclic shifts sort like suffixes.
+		 */
+		int[] shifted = new int[n];
+		int[] next = new int[n];
+		for(int h=1; h<n && classes<n; h<<=1){
+			for(int i=0; i<n; i++){
+				shifted[i] = sa[i]-h;
+				if(shifted[i] < 0) shifted[i] += n;
+			}
+			Arrays.fill(count,0,classes,0);
+			for(int i=0; i<n; i++) count[rank[shifted[i]]]++;
+			for(int i=1; i<classes; i++) count[i] += count[i-1];
+			for(int i=n-1; i>=0; i--) sa[--count[rank[shifted[i]]]] = shifted[i];
+
+			next[sa[0]] = 0;
+			classes = 1;
+			for(int i=1; i<n; i++){
+				int a = sa[i], b = sa[i-1];
+				if(rank[a] != rank[b] || rank[(a+h)%n] != rank[(b+h)%n]) classes++;
+				next[sa[i]] = classes-1;
+			}
+			int[] temp = rank;
+			rank = next;
+			next = temp;
+		}
+		return sa;
+	}
+
+	/**
+	 * Burrows-Wheeler transform of the data using its suffix array. The
+	 * sentinel is left out of the output and its row stored as the primary index.
+	 *
+	 * @param data String data to be transformed
+	 * @param primaryIndex Receives the row of the sentinel
+	 * @return The last column of the sorted rotations without the sentinel
+	 */
+	static String bwt(String data, int[] primaryIndex){
+		int[] sa = suffixArray(data);
+		StringBuilder last = new StringBuilder(data.length());
+		for(int i=0; i<sa.length; i++){
+			if(sa[i] == 0) primaryIndex[0] = i;
+			else last.append(data.charAt(sa[i]-1));
+		}
+		return last.toString();
+	}
+
+	/**
+	 * Rebuilds the data from its Burrows-Wheeler transform by walking the
+	 * last to first mapping backwards from the sentinel row.
+	 *
+	 * @param last The last column without the sentinel
+	 * @param primaryIndex The row of the sentinel
+	 * @return The original String data
+	 */
+	static String inverseBwt(String last, int primaryIndex){
+		int n = last.length()+1;
+		int[] symbols = new int[n];
+		int[] start = new int[ALPHABET+1];
+		for(int i=0, j=0; i<n; i++){
+			symbols[i] = (i == primaryIndex)? 0 : last.charAt(j++)+1;
+			start[symbols[i]]++;
+		}
+
+		//start[c] becomes the first row beginning with c
+		for(int c=0, total=0; c<start.length; c++){
+			int f = start[c];
+			start[c] = total;
+			total += f;
+		}
+		int[] lf = new int[n];
+		for(int i=0; i<n; i++) lf[i] = start[symbols[i]]++;
+
+		char[] data = new char[n-1];
+		int row = 0; //The row beginning with the sentinel ends with the last character
+		for(int i=n-2; i>=0; i--){
+			data[i] = (char)(symbols[row]-1);
+			row = lf[row];
+		}
+		return new String(data);
+	}
+
+	/*
+	 *
+	 * MOVE-TO-FRONT
+	 *
+	 */
+
+	/**
+	 * Replaces every character with its position in a list of recently used
+	 * characters, moving it to the front afterwards.
+	 *
+	 * @param data String data to be encoded
+	 * @return The move-to-front encoded String
+	 */
+	static String moveToFront(String data){
+		char[] order = initialOrder();
+		char[] encoding = new char[data.length()];
+		for(int i=0; i<data.length(); i++){
+			char c = data.charAt(i);
+			int index = 0;
+			while(order[index] != c) index++;
+			System.arraycopy(order,0,order,1,index);
+			order[0] = c;
+			encoding[i] = (char)index;
+		}
+		return new String(encoding);
+	}
+
+	/**
+	 * Reverses {@link #moveToFront(String)}
+	 *
+	 * @param data Move-to-front encoded String data
+	 * @return The decoded String
+	 */
+	static String inverseMoveToFront(String data){
+		char[] order = initialOrder();
+		char[] decoding = new char[data.length()];
+		for(int i=0; i<data.length(); i++){
+			int index = data.charAt(i);
+			char c = order[index];
+			System.arraycopy(order,0,order,1,index);
+			order[0] = c;
+			decoding[i] = c;
+		}
+		return new String(decoding);
+	}
+
+	private static char[] initialOrder(){
+		char[] order = new char[ALPHABET];
+		for(int i=0; i<ALPHABET; i++) order[i] = (char)i;
+		return order;
+	}
+
+	/**
+	 * The result of applying a transform to a block.
+	 */
+	public static class Transformed{
+		public final Transform transform;
+		public final String data;
+		public final int primaryIndex;
+
+		Transformed(Transform transform, String data, int primaryIndex){
+			this.transform = transform;
+			this.data = data;
+			this.primaryIndex = primaryIndex;
+		}
+	}
+}